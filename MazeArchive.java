@@ -0,0 +1,520 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The MazeArchive class reads and writes mazes in a compressed binary format
+ * meant for storing large numbers of generated mazes. The cells of the maze are
+ * split into blocks of whole rows. In each block the openness of every cell is
+ * packed into 2 bits (4 cells per byte) and then compressed with an adaptive
+ * range coder that predicts each cell from its neighbours. A block index at the start of the file stores where each block
+ * is, so that a reader can decompress only the rows it needs. Blocks are
+ * compressed in parallel when the file is written.
+ *
+ * The file starts with a header of the magic number, the number of rows, the
+ * number of columns, the starting cell index, the final cell index, the number
+ * of rows per block and the number of blocks. The header is followed by the
+ * block index (the offset and length of each block) and then the blocks. The
+ * first byte of each block says if it is stored as-is or compressed.
+ *
+ * @version 1.0 19/10/2026
+ * @author John Deniel Perez
+ */
+public class MazeArchive {
+	// The first 4 bytes of every archive file ("MZA1").
+	public static final int MAGIC = 0x4D5A4131;
+	// The number of cells to aim for in each block.
+	private static final int CELLS_PER_BLOCK = 1 << 16;
+	// Block modes. A stored block holds the packed bytes as they are, a coded block
+	// holds the cells after the range coder. Mode 1 was used by an earlier LZ stage
+	// and is no longer read, so those blocks are reported as corrupted.
+	private static final byte STORED = 0;
+	private static final byte CODED = 2;
+	// The range coder keeps the probability of each bit being 0 in PROB_BITS bits
+	// and moves it 1/2^MOVE_BITS of the way towards each bit it codes.
+	private static final int PROB_BITS = 11;
+	private static final int PROB_ONE = 1 << PROB_BITS;
+	private static final int MOVE_BITS = 5;
+	// The number of contexts: the cell to the left and the cell above can each be
+	// 0 to 3, or 4 when there is no such cell in the block.
+	private static final int CONTEXTS = 25;
+	// The most cells a block can hold for each byte it takes in the file. The bit
+	// models never go past 2017/2048, so each cell costs the range coder at least
+	// 0.0436 bits, and one byte holds at most about 184 cells.
+	private static final int MAX_CELLS_PER_BYTE = 192;
+
+	// The file the archive is read from.
+	private final RandomAccessFile file;
+	// The number of rows and columns of the maze.
+	public final int rows, cols;
+	// The index of the starting cell and the final cell of the maze.
+	public final int startIndex, lastIndex;
+	// The number of rows in each block. The last block may have fewer rows.
+	private final int rowsPerBlock;
+	// The offset in the file and the length in bytes of each block.
+	private final long[] offsets;
+	private final int[] lengths;
+
+	/**
+	 * The constructor of the class. It opens the archive file and reads the header
+	 * and the block index. No blocks are read until they are requested.
+	 *
+	 * @param mazeFile the archive file to be read.
+	 * @throws IOException if the file cannot be read, is not an archive, or has a
+	 *                     corrupted header or block index.
+	 */
+	public MazeArchive(File mazeFile) throws IOException {
+		file = new RandomAccessFile(mazeFile, "r");
+		try {
+			if (file.readInt() != MAGIC) {
+				throw new IOException("The file is not a maze archive.");
+			}
+			rows = file.readInt();
+			cols = file.readInt();
+			startIndex = file.readInt();
+			lastIndex = file.readInt();
+			rowsPerBlock = file.readInt();
+			int blockCount = file.readInt();
+			if (rows <= 0 || cols <= 0 || (long) rows * cols > Integer.MAX_VALUE || rowsPerBlock <= 0
+					|| blockCount != blockCount(rows, rowsPerBlock) || startIndex < 1 || startIndex > rows * cols
+					|| lastIndex < 1 || lastIndex > rows * cols) {
+				throw new IOException("The maze archive header is corrupted.");
+			}
+			// Every block has to lie after the block index and within the file.
+			long firstOffset = 7 * 4 + blockCount * 12L;
+			if (firstOffset > file.length()) {
+				throw new IOException("The maze archive header is corrupted.");
+			}
+			offsets = new long[blockCount];
+			lengths = new int[blockCount];
+			for (int i = 0; i < blockCount; i++) {
+				offsets[i] = file.readLong();
+				lengths[i] = file.readInt();
+				if (lengths[i] <= 0 || offsets[i] < firstOffset || offsets[i] > file.length() - lengths[i]) {
+					throw new IOException("The maze archive header is corrupted.");
+				}
+				// The block has to be long enough to hold its cells, and no longer than a
+				// stored block, so that a small file cannot claim a huge maze.
+				long cells = Math.min(rowsPerBlock, rows - (long) i * rowsPerBlock) * cols;
+				if (lengths[i] > packedLength((int) cells) + 1 || cells > (long) MAX_CELLS_PER_BYTE * lengths[i]) {
+					throw new IOException("The maze archive header is corrupted.");
+				}
+			}
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks if a file is a maze archive by reading its magic number. Files written
+	 * in the text format start with a digit, so they never match.
+	 *
+	 * @param mazeFile the file to be checked.
+	 * @return returns true if the file starts with the archive magic number.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static boolean isArchive(File mazeFile) throws IOException {
+		if (mazeFile.length() < 4) {
+			return false;
+		}
+		DataInputStream input = new DataInputStream(new FileInputStream(mazeFile));
+		try {
+			return input.readInt() == MAGIC;
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Returns the openness of every cell from the first row up to and including the
+	 * last row, arranged by index. Only the blocks that contain those rows are read
+	 * from the file and decompressed.
+	 *
+	 * @param firstRow the first row to be read.
+	 * @param lastRow  the last row to be read.
+	 * @return returns an array with the openness of each cell in the rows.
+	 * @throws IOException if the blocks cannot be read or are corrupted.
+	 */
+	public byte[] readRows(int firstRow, int lastRow) throws IOException {
+		if (firstRow < 0 || lastRow >= rows || firstRow > lastRow) {
+			throw new IllegalArgumentException("Rows " + firstRow + " to " + lastRow + " are not within the maze.");
+		}
+		byte[] openness = new byte[(lastRow - firstRow + 1) * cols];
+		for (int block = firstRow / rowsPerBlock; block <= lastRow / rowsPerBlock; block++) {
+			int blockFirst = block * rowsPerBlock;
+			int blockRows = Math.min(rowsPerBlock, rows - blockFirst);
+			byte[] packed = readBlock(block, blockRows * cols);
+			int from = Math.max(firstRow, blockFirst);
+			int to = Math.min(lastRow, blockFirst + blockRows - 1);
+			for (int i = (from - blockFirst) * cols; i < (to - blockFirst + 1) * cols; i++) {
+				openness[(blockFirst - firstRow) * cols + i] = (byte) getCell(packed, i);
+			}
+		}
+		return openness;
+	}
+
+	/**
+	 * Returns the openness of every cell in the maze, arranged by index.
+	 *
+	 * @return returns an array with the openness of each cell in the maze.
+	 * @throws IOException if the blocks cannot be read or are corrupted.
+	 */
+	public byte[] readAll() throws IOException {
+		return readRows(0, rows - 1);
+	}
+
+	/**
+	 * Closes the archive file.
+	 *
+	 * @throws IOException if the file cannot be closed.
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+
+	/**
+	 * Reads a block from the file and returns its packed bytes.
+	 *
+	 * @param block the number of the block.
+	 * @param cells the number of cells in the block.
+	 * @return returns the packed bytes of the block.
+	 * @throws IOException if the block cannot be read or is corrupted.
+	 */
+	private byte[] readBlock(int block, int cells) throws IOException {
+		byte[] data = new byte[lengths[block]];
+		file.seek(offsets[block]);
+		file.readFully(data);
+		if (data.length > 0 && data[0] == STORED && data.length - 1 == packedLength(cells)) {
+			return Arrays.copyOfRange(data, 1, data.length);
+		} else if (data.length > 0 && data[0] == CODED) {
+			return decompress(data, 1, cells, cols);
+		}
+		throw new IOException("Block " + block + " of the maze archive is corrupted.");
+	}
+
+	/**
+	 * Writes a maze to a file in the archive format. The blocks are packed and
+	 * compressed in parallel and then written in order after the block index.
+	 *
+	 * @param mazeFile the file to be written.
+	 * @param maze     the maze to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(File mazeFile, Maze maze) throws IOException {
+		int rowsPerBlock = Math.max(1, CELLS_PER_BLOCK / maze.cols);
+		int blockCount = blockCount(maze.rows, rowsPerBlock);
+		byte[][] blocks = new byte[blockCount][];
+		IntStream.range(0, blockCount).parallel().forEach(block -> {
+			int blockFirst = block * rowsPerBlock;
+			int blockRows = Math.min(rowsPerBlock, maze.rows - blockFirst);
+			blocks[block] = encodeBlock(pack(maze, blockFirst, blockRows), blockRows * maze.cols, maze.cols);
+		});
+
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(mazeFile)));
+		try {
+			output.writeInt(MAGIC);
+			output.writeInt(maze.rows);
+			output.writeInt(maze.cols);
+			output.writeInt(maze.startIndex);
+			output.writeInt(maze.lastIndex);
+			output.writeInt(rowsPerBlock);
+			output.writeInt(blockCount);
+			// The blocks start right after the header (7 ints) and the block index (a long
+			// and an int for each block).
+			long offset = 7 * 4 + (long) blockCount * 12;
+			for (byte[] block : blocks) {
+				output.writeLong(offset);
+				output.writeInt(block.length);
+				offset += block.length;
+			}
+			for (byte[] block : blocks) {
+				output.write(block);
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Packs the openness of each cell in the given rows into 2 bits, with 4 cells
+	 * in each byte. The first cell goes into the lowest 2 bits of the byte.
+	 *
+	 * @param maze      the maze to be packed.
+	 * @param firstRow  the first row of the block.
+	 * @param blockRows the number of rows in the block.
+	 * @return returns the packed bytes of the rows.
+	 */
+	private static byte[] pack(Maze maze, int firstRow, int blockRows) {
+		byte[] packed = new byte[packedLength(blockRows * maze.cols)];
+		int i = 0;
+		for (int row = firstRow; row < firstRow + blockRows; row++) {
+			for (int col = 0; col < maze.cols; col++) {
+				packed[i >> 2] |= (maze.cells[row][col].openness & 3) << ((i & 3) * 2);
+				i++;
+			}
+		}
+		return packed;
+	}
+
+	/**
+	 * Compresses the packed bytes of a block. If compressing does not make the
+	 * block smaller, the block is stored as-is instead.
+	 *
+	 * @param packed the packed bytes of the block.
+	 * @param cells  the number of cells in the block.
+	 * @param cols   the number of columns of the maze.
+	 * @return returns the block mode followed by the block data.
+	 */
+	private static byte[] encodeBlock(byte[] packed, int cells, int cols) {
+		byte[] compressed = compress(packed, cells, cols);
+		byte[] block;
+		if (compressed.length < packed.length) {
+			block = new byte[compressed.length + 1];
+			block[0] = CODED;
+			System.arraycopy(compressed, 0, block, 1, compressed.length);
+		} else {
+			block = new byte[packed.length + 1];
+			block[0] = STORED;
+			System.arraycopy(packed, 0, block, 1, packed.length);
+		}
+		return block;
+	}
+
+	/**
+	 * Compresses the packed cells of a block with an adaptive binary range coder.
+	 * The openness of each cell is coded as 2 bits, the high bit first. The
+	 * probability of each bit is taken from a model picked by the openness of the
+	 * cell to the left and the cell above (within the same block), since the walls
+	 * of neighbouring cells are related. Each model starts at even odds and moves
+	 * towards the bits it has seen.
+	 *
+	 * @param packed the packed cells of the block.
+	 * @param cells  the number of cells in the block.
+	 * @param cols   the number of columns of the maze.
+	 * @return returns the compressed bytes.
+	 */
+	static byte[] compress(byte[] packed, int cells, int cols) {
+		RangeEncoder encoder = new RangeEncoder(packed.length / 2);
+		int[] probs = newModels();
+		for (int i = 0; i < cells; i++) {
+			int symbol = getCell(packed, i);
+			int models = context(packed, i, cols) * 4;
+			int node = 1;
+			for (int shift = 1; shift >= 0; shift--) {
+				int bit = (symbol >> shift) & 1;
+				encoder.encodeBit(probs, models + node, bit);
+				node = node * 2 + bit;
+			}
+		}
+		return encoder.finish();
+	}
+
+	/**
+	 * Decompresses bytes written by the compress method. Every read from src is
+	 * checked against its length, so corrupted bytes give an IOException.
+	 *
+	 * @param src   the compressed bytes.
+	 * @param start the position in src where the compressed bytes start.
+	 * @param cells the number of cells in the block.
+	 * @param cols  the number of columns of the maze.
+	 * @return returns the packed cells of the block.
+	 * @throws IOException if the compressed bytes are corrupted.
+	 */
+	static byte[] decompress(byte[] src, int start, int cells, int cols) throws IOException {
+		// The encoder always starts with a zero byte followed by the 4 bytes the
+		// decoder starts from.
+		if (src.length - start < 5 || src[start] != 0) {
+			throw new IOException("The compressed block is corrupted.");
+		}
+		int in = start + 1;
+		int code = (src[in] & 0xFF) << 24 | (src[in + 1] & 0xFF) << 16 | (src[in + 2] & 0xFF) << 8 | (src[in + 3] & 0xFF);
+		in += 4;
+		int range = -1;
+		byte[] packed = new byte[packedLength(cells)];
+		int[] probs = newModels();
+		for (int i = 0; i < cells; i++) {
+			int models = context(packed, i, cols) * 4;
+			int node = 1;
+			for (int bits = 0; bits < 2; bits++) {
+				int prob = probs[models + node];
+				int bound = (range >>> PROB_BITS) * prob;
+				if (Integer.compareUnsigned(code, bound) < 0) {
+					range = bound;
+					probs[models + node] = prob + ((PROB_ONE - prob) >>> MOVE_BITS);
+					node = node * 2;
+				} else {
+					code -= bound;
+					range -= bound;
+					probs[models + node] = prob - (prob >>> MOVE_BITS);
+					node = node * 2 + 1;
+				}
+				if ((range & 0xFF000000) == 0) {
+					if (in == src.length) {
+						throw new IOException("The compressed block is corrupted.");
+					}
+					range <<= 8;
+					code = (code << 8) | (src[in++] & 0xFF);
+				}
+			}
+			packed[i >> 2] |= (node - 4) << ((i & 3) * 2);
+		}
+		if (in != src.length) {
+			throw new IOException("The compressed block is corrupted.");
+		}
+		return packed;
+	}
+
+	/**
+	 * Creates the bit models for every context, each starting at even odds. Each
+	 * context has 4 slots: slot 1 is the high bit, and slots 2 and 3 are the low
+	 * bit after a high bit of 0 or 1. Slot 0 is not used.
+	 *
+	 * @return returns the probability that each bit is 0, out of PROB_ONE.
+	 */
+	private static int[] newModels() {
+		int[] probs = new int[CONTEXTS * 4];
+		Arrays.fill(probs, PROB_ONE / 2);
+		return probs;
+	}
+
+	/**
+	 * Calculates the context of a cell from the openness of the cell to its left
+	 * and the cell above it. A cell on the first column or on the first row of the
+	 * block uses 4 in place of the missing neighbour.
+	 *
+	 * @param packed the packed cells of the block, filled in up to the cell.
+	 * @param i      the position of the cell in the block.
+	 * @param cols   the number of columns of the maze.
+	 * @return returns the context of the cell, from 0 to CONTEXTS - 1.
+	 */
+	private static int context(byte[] packed, int i, int cols) {
+		int left = i % cols == 0 ? 4 : getCell(packed, i - 1);
+		int above = i < cols ? 4 : getCell(packed, i - cols);
+		return left * 5 + above;
+	}
+
+	/**
+	 * Returns the openness of a cell from the packed cells of a block.
+	 *
+	 * @param packed the packed cells of the block.
+	 * @param i      the position of the cell in the block.
+	 * @return returns the openness of the cell.
+	 */
+	private static int getCell(byte[] packed, int i) {
+		return (packed[i >> 2] >> ((i & 3) * 2)) & 3;
+	}
+
+	/**
+	 * Calculates the number of bytes needed to pack the given number of cells.
+	 *
+	 * @param cells the number of cells.
+	 * @return returns the number of packed bytes.
+	 */
+	private static int packedLength(int cells) {
+		// Done in long so that a maze with close to Integer.MAX_VALUE cells does not
+		// overflow.
+		return (int) ((cells + 3L) / 4);
+	}
+
+	/**
+	 * Calculates the number of blocks needed for the given number of rows.
+	 *
+	 * @param rows         the number of rows of the maze.
+	 * @param rowsPerBlock the number of rows in each block.
+	 * @return returns the number of blocks.
+	 */
+	private static int blockCount(int rows, int rowsPerBlock) {
+		return (int) (((long) rows + rowsPerBlock - 1) / rowsPerBlock);
+	}
+
+	/**
+	 * The encoding half of the range coder. It keeps the low end and the size of
+	 * the current range, and writes out the top byte of the low end whenever the
+	 * range gets smaller than 2^24. A carry out of the low end is added to the
+	 * bytes that are still waiting to be written.
+	 */
+	private static class RangeEncoder {
+		// The bytes written so far.
+		private final ByteArrayOutputStream output;
+		// The low end of the range, with one extra bit for the carry.
+		private long low = 0;
+		// The size of the range, as an unsigned int.
+		private int range = -1;
+		// The byte waiting to be written and the number of bytes waiting (the cache
+		// plus any 0xFF bytes after it that a carry would also change).
+		private int cache = 0;
+		private long cacheSize = 1;
+
+		/**
+		 * The constructor of the class.
+		 *
+		 * @param size the expected number of bytes to be written.
+		 */
+		RangeEncoder(int size) {
+			output = new ByteArrayOutputStream(size + 16);
+		}
+
+		/**
+		 * Codes one bit with the given model and moves the model towards the bit.
+		 *
+		 * @param probs the bit models.
+		 * @param index the model to be used.
+		 * @param bit   the bit to be coded.
+		 */
+		void encodeBit(int[] probs, int index, int bit) {
+			int prob = probs[index];
+			int bound = (range >>> PROB_BITS) * prob;
+			if (bit == 0) {
+				range = bound;
+				probs[index] = prob + ((PROB_ONE - prob) >>> MOVE_BITS);
+			} else {
+				low += bound & 0xFFFFFFFFL;
+				range -= bound;
+				probs[index] = prob - (prob >>> MOVE_BITS);
+			}
+			if ((range & 0xFF000000) == 0) {
+				range <<= 8;
+				shiftLow();
+			}
+		}
+
+		/**
+		 * Writes out the rest of the low end and returns every byte written.
+		 *
+		 * @return returns the compressed bytes.
+		 */
+		byte[] finish() {
+			for (int i = 0; i < 5; i++) {
+				shiftLow();
+			}
+			return output.toByteArray();
+		}
+
+		/**
+		 * Moves the top byte of the low end out. The byte is only written once it
+		 * is known that a carry can no longer change it.
+		 */
+		private void shiftLow() {
+			if (low < 0xFF000000L || low > 0xFFFFFFFFL) {
+				int carry = (int) (low >>> 32);
+				int temp = cache;
+				do {
+					output.write(temp + carry);
+					temp = 0xFF;
+				} while (--cacheSize != 0);
+				cache = (int) (low >>> 24) & 0xFF;
+			}
+			cacheSize++;
+			low = (low & 0x00FFFFFFL) << 8;
+		}
+	}
+}
@@ -0,0 +1,401 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The MazeArchiveTest class checks the MazeArchive format. It checks that the
+ * range coder gives back the cells it was given, that mazes written to an
+ * archive can be read back (whole or by rows), that files written by earlier
+ * versions can still be read, and that corrupted files are rejected with an
+ * IOException.
+ * Run it with "java MazeArchiveTest" after compiling all the classes. It prints
+ * "All MazeArchive checks passed." or throws an AssertionError.
+ *
+ * @version 1.0 19/10/2026
+ * @author John Deniel Perez
+ */
+public class MazeArchiveTest {
+	// A 3x5 maze with openness (index - 1) % 4, start 2 and final 14. Its one
+	// block is stored as-is.
+	private static final String STORED_ARCHIVE = "4d5a41310000000300000005000000020000000e00003333"
+			+ "0000000100000000000000280000000500e4e4e424";
+	// A 4x40 maze where every cell has openness 3 except row 2, column 7 which has
+	// openness 1, start 1 and final 160. Its one block is coded.
+	private static final String CODED_ARCHIVE = "4d5a4131000000040000002800000001000000a000000666"
+			+ "000000010000000000000028000000130200fffffffeffffffffffffffa3216569932a";
+
+	private static final Random random = new Random(26);
+
+	/**
+	 * The main method of the class. Runs every check and prints a message when
+	 * they all pass.
+	 *
+	 * @param args the arguments in the input by the user (not used).
+	 * @throws IOException if a temporary file cannot be written or read.
+	 */
+	public static void main(String[] args) throws IOException {
+		checkCodec();
+		checkRoundTrip(1, 1);
+		checkRoundTrip(7, 7);
+		checkRoundTrip(700, 300);
+		checkRoundTrip(5, 70001);
+		checkRepetitiveMaze();
+		checkOldFiles();
+		checkCorrupted();
+		System.out.println("All MazeArchive checks passed.");
+	}
+
+	/**
+	 * Checks that decompress gives back the input of compress for random,
+	 * repetitive and short blocks, with different numbers of columns.
+	 *
+	 * @throws IOException if a compressed input cannot be decompressed.
+	 */
+	private static void checkCodec() throws IOException {
+		for (int cells = 1; cells < 9; cells++) {
+			checkCodec(randomCells(cells, 4, 0), cells, cells);
+			checkCodec(randomCells(cells, 1, 0), cells, 1);
+		}
+		for (int i = 0; i < 300; i++) {
+			int cells = 1 + random.nextInt(70000);
+			int cols = 1 + random.nextInt(cells);
+			checkCodec(randomCells(cells, 4, 0), cells, cols);
+			checkCodec(randomCells(cells, 2, 0), cells, cols);
+			checkCodec(randomCells(cells, 4, 3), cells, cols);
+		}
+		int cells = 1 << 16;
+		byte[] same = randomCells(cells, 1, 0);
+		check(MazeArchive.compress(same, cells, 256).length < cells / 100, "repeated cells are not compressed");
+	}
+
+	/**
+	 * Compresses and decompresses the packed cells and checks that they are the
+	 * same.
+	 *
+	 * @param packed the packed cells to be checked.
+	 * @param cells  the number of cells.
+	 * @param cols   the number of columns.
+	 * @throws IOException if the compressed bytes cannot be decompressed.
+	 */
+	private static void checkCodec(byte[] packed, int cells, int cols) throws IOException {
+		byte[] compressed = MazeArchive.compress(packed, cells, cols);
+		// decompress reads from a position, like it does after the block mode byte.
+		byte[] block = new byte[compressed.length + 1];
+		System.arraycopy(compressed, 0, block, 1, compressed.length);
+		check(Arrays.equals(MazeArchive.decompress(block, 1, cells, cols), packed),
+				"codec round trip failed for " + cells + " cells and " + cols + " columns");
+	}
+
+	/**
+	 * Returns packed cells where each cell is 1 except for a random cell once in
+	 * a while. A bound of 4 and a rate of 0 gives fully random cells.
+	 *
+	 * @param cells the number of cells.
+	 * @param bound the bound of each random cell.
+	 * @param rate  one in how many cells is random, or 0 for every cell.
+	 * @return returns the packed cells.
+	 */
+	private static byte[] randomCells(int cells, int bound, int rate) {
+		byte[] packed = new byte[(cells + 3) / 4];
+		for (int i = 0; i < cells; i++) {
+			int cell = rate == 0 || random.nextInt(rate) == 0 ? random.nextInt(bound) : 1;
+			packed[i >> 2] |= cell << ((i & 3) * 2);
+		}
+		return packed;
+	}
+
+	/**
+	 * Writes a maze with random openness to an archive and checks that readAll and
+	 * readRows give back the same openness. The row ranges start and end in the
+	 * middle of blocks and cross block boundaries.
+	 *
+	 * @param rows the number of rows of the maze.
+	 * @param cols the number of columns of the maze.
+	 * @throws IOException if the archive cannot be written or read.
+	 */
+	private static void checkRoundTrip(int rows, int cols) throws IOException {
+		Maze maze = newMaze(rows, cols);
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < cols; j++) {
+				maze.cells[i][j].openness = random.nextInt(4);
+			}
+		}
+		checkArchive(maze);
+	}
+
+	/**
+	 * Writes a maze with mostly the same openness, so that its blocks are
+	 * compressed, and checks that it can be read back.
+	 *
+	 * @throws IOException if the archive cannot be written or read.
+	 */
+	private static void checkRepetitiveMaze() throws IOException {
+		Maze maze = newMaze(500, 400);
+		for (int i = 0; i < maze.rows; i++) {
+			for (int j = 0; j < maze.cols; j++) {
+				maze.cells[i][j].openness = random.nextInt(50) == 0 ? random.nextInt(4) : 1;
+			}
+		}
+		File file = checkArchive(maze);
+		check(file.length() < maze.rows * maze.cols / 8, "repetitive maze is not compressed");
+	}
+
+	/**
+	 * Writes the maze to a temporary archive and checks the header, readAll, and
+	 * readRows for several row ranges against the cells of the maze.
+	 *
+	 * @param maze the maze to be checked.
+	 * @return returns the temporary archive file.
+	 * @throws IOException if the archive cannot be written or read.
+	 */
+	private static File checkArchive(Maze maze) throws IOException {
+		File file = File.createTempFile("maze", ".mza");
+		file.deleteOnExit();
+		MazeArchive.write(file, maze);
+		check(MazeArchive.isArchive(file), "written file is not an archive");
+		MazeArchive archive = new MazeArchive(file);
+		try {
+			check(archive.rows == maze.rows && archive.cols == maze.cols, "wrong dimensions");
+			check(archive.startIndex == maze.startIndex && archive.lastIndex == maze.lastIndex, "wrong indices");
+			checkRows(maze, 0, maze.rows - 1, archive.readAll());
+			for (int i = 0; i < 20; i++) {
+				int firstRow = random.nextInt(maze.rows);
+				int lastRow = firstRow + random.nextInt(maze.rows - firstRow);
+				checkRows(maze, firstRow, lastRow, archive.readRows(firstRow, lastRow));
+			}
+			checkRows(maze, maze.rows - 1, maze.rows - 1, archive.readRows(maze.rows - 1, maze.rows - 1));
+		} finally {
+			archive.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Checks that the openness read from an archive matches the cells of the maze.
+	 *
+	 * @param maze     the maze that was written.
+	 * @param firstRow the first row that was read.
+	 * @param lastRow  the last row that was read.
+	 * @param openness the openness that was read.
+	 */
+	private static void checkRows(Maze maze, int firstRow, int lastRow, byte[] openness) {
+		check(openness.length == (lastRow - firstRow + 1) * maze.cols, "wrong length for rows " + firstRow
+				+ " to " + lastRow);
+		for (int i = firstRow; i <= lastRow; i++) {
+			for (int j = 0; j < maze.cols; j++) {
+				check(openness[(i - firstRow) * maze.cols + j] == maze.cells[i][j].openness,
+						"wrong openness at row " + i + ", column " + j);
+			}
+		}
+	}
+
+	/**
+	 * Checks that archives written by this version of the format can still be
+	 * read. If a change to the format makes this check fail, files that are
+	 * already stored would no longer be readable.
+	 *
+	 * @throws IOException if an archive cannot be read.
+	 */
+	private static void checkOldFiles() throws IOException {
+		MazeArchive archive = new MazeArchive(writeHex(STORED_ARCHIVE));
+		try {
+			check(archive.rows == 3 && archive.cols == 5, "wrong dimensions in stored archive");
+			check(archive.startIndex == 2 && archive.lastIndex == 14, "wrong indices in stored archive");
+			byte[] openness = archive.readAll();
+			for (int i = 0; i < openness.length; i++) {
+				check(openness[i] == i % 4, "wrong openness in stored archive");
+			}
+		} finally {
+			archive.close();
+		}
+
+		archive = new MazeArchive(writeHex(CODED_ARCHIVE));
+		try {
+			check(archive.rows == 4 && archive.cols == 40, "wrong dimensions in coded archive");
+			check(archive.startIndex == 1 && archive.lastIndex == 160, "wrong indices in coded archive");
+			byte[] openness = archive.readAll();
+			for (int i = 0; i < openness.length; i++) {
+				check(openness[i] == (i == 2 * 40 + 7 ? 1 : 3), "wrong openness in coded archive");
+			}
+		} finally {
+			archive.close();
+		}
+	}
+
+	/**
+	 * Checks that corrupted archives are rejected with an IOException instead of
+	 * a runtime exception.
+	 *
+	 * @throws IOException if a temporary file cannot be written.
+	 */
+	private static void checkCorrupted() throws IOException {
+		// Negative block length, offset before the block index, offset past the end
+		// of the file, and an offset that would overflow.
+		checkRejected(header(1, 1, 1, 1, 1, 1, 40, -5));
+		checkRejected(header(1, 1, 1, 1, 1, 1, 8, 2));
+		checkRejected(header(1, 1, 1, 1, 1, 1, 400, 2));
+		checkRejected(header(1, 1, 1, 1, 1, 1, Long.MAX_VALUE, 2));
+		// Start and final cell indices outside the maze.
+		checkRejected(header(1, 1, 9, 1, 1, 1, 40, 2));
+		checkRejected(header(1, 1, 1, 0, 1, 1, 40, 2));
+		// Too many cells, and a block count that does not match the rows.
+		checkRejected(header(100000, 100000, 1, 1, 1, 100000, 40, 2));
+		checkRejected(header(4, 1, 1, 1, 1, 1, 40, 2));
+		checkRejected(header(Integer.MAX_VALUE, 1, 1, 1, 1, Integer.MAX_VALUE, 40, 2));
+		// Blocks that are far too short for the cells they claim to hold.
+		checkRejected(header(46340, 46340, 1, 1, 46340, 1, 40, 2));
+		checkRejected(header(1, Integer.MAX_VALUE, 1, 1, 1, 1, 40, 2));
+
+		// A coded block that is one byte short, and a block with the mode of the old
+		// LZ stage.
+		checkBadBlock(39, -1);
+		checkBadBlock(40, -1);
+	}
+
+	/**
+	 * Changes one byte of the coded archive and checks that reading its block
+	 * throws an IOException.
+	 *
+	 * @param position the position of the byte to be changed.
+	 * @param change   the amount added to the byte.
+	 * @throws IOException if the temporary file cannot be written.
+	 */
+	private static void checkBadBlock(int position, int change) throws IOException {
+		byte[] bytes = hexToBytes(CODED_ARCHIVE);
+		bytes[position] += change;
+		MazeArchive archive = new MazeArchive(writeBytes(bytes));
+		try {
+			archive.readAll();
+			throw new AssertionError("corrupted block was read");
+		} catch (IOException e) {
+			// Expected.
+		} finally {
+			archive.close();
+		}
+	}
+
+	/**
+	 * Checks that opening the archive throws an IOException.
+	 *
+	 * @param bytes the contents of the archive.
+	 * @throws IOException if the temporary file cannot be written.
+	 */
+	private static void checkRejected(byte[] bytes) throws IOException {
+		File file = writeBytes(bytes);
+		try {
+			new MazeArchive(file).close();
+		} catch (IOException e) {
+			return;
+		}
+		throw new AssertionError("corrupted header was accepted");
+	}
+
+	/**
+	 * Builds an archive with one block index entry followed by a 2 byte stored
+	 * block.
+	 *
+	 * @param rows         the number of rows in the header.
+	 * @param cols         the number of columns in the header.
+	 * @param startIndex   the index of the starting cell in the header.
+	 * @param lastIndex    the index of the final cell in the header.
+	 * @param rowsPerBlock the number of rows per block in the header.
+	 * @param blockCount   the number of blocks in the header.
+	 * @param offset       the offset of the block in the block index.
+	 * @param length       the length of the block in the block index.
+	 * @return returns the bytes of the archive.
+	 * @throws IOException if the bytes cannot be written.
+	 */
+	private static byte[] header(int rows, int cols, int startIndex, int lastIndex, int rowsPerBlock,
+			int blockCount, long offset, int length) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(MazeArchive.MAGIC);
+		output.writeInt(rows);
+		output.writeInt(cols);
+		output.writeInt(startIndex);
+		output.writeInt(lastIndex);
+		output.writeInt(rowsPerBlock);
+		output.writeInt(blockCount);
+		output.writeLong(offset);
+		output.writeInt(length);
+		output.writeByte(0);
+		output.writeByte(0);
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Creates a maze with the given dimensions, with the start in the first cell
+	 * and the final cell in the last cell.
+	 *
+	 * @param rows the number of rows of the maze.
+	 * @param cols the number of columns of the maze.
+	 * @return returns the new maze.
+	 */
+	private static Maze newMaze(int rows, int cols) {
+		Maze maze = new Maze(rows, cols);
+		maze.setCells();
+		maze.startIndex = 1;
+		maze.lastIndex = rows * cols;
+		return maze;
+	}
+
+	/**
+	 * Writes hex encoded bytes to a temporary file.
+	 *
+	 * @param hex the hex encoded bytes.
+	 * @return returns the temporary file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static File writeHex(String hex) throws IOException {
+		return writeBytes(hexToBytes(hex));
+	}
+
+	/**
+	 * Writes bytes to a temporary file.
+	 *
+	 * @param bytes the bytes to be written.
+	 * @return returns the temporary file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static File writeBytes(byte[] bytes) throws IOException {
+		File file = File.createTempFile("maze", ".mza");
+		file.deleteOnExit();
+		FileOutputStream output = new FileOutputStream(file);
+		try {
+			output.write(bytes);
+		} finally {
+			output.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Converts a hex encoded String to bytes.
+	 *
+	 * @param hex the hex encoded String.
+	 * @return returns the bytes.
+	 */
+	private static byte[] hexToBytes(String hex) {
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Throws an AssertionError with the message if the condition is false.
+	 *
+	 * @param condition the condition to be checked.
+	 * @param message   the message of the error.
+	 */
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+}
@@ -13,7 +13,8 @@ import java.io.IOException;
  * of the maze. The class then prints a visual representation of the maze and
  * writes to a file the number of rows, the number of columns, the starting
  * cell, the final cell, and a list of the openness of each cell in the maze
- * arranged by index.
+ * arranged by index. If the filename ends with ".mza", the maze is written in
+ * the compressed MazeArchive format instead.
  * 
  * @version 1.0 23/09/2022
  * @author John Deniel Perez
@@ -141,8 +142,9 @@ public class MazeGenerator extends Maze {
 	 * a String). The first two arguments are the number of rows and columns of the
 	 * maze to be generated and the third argument is the filename of the file to be
 	 * created. The method then generates a maze, prints out the maze and outputs
-	 * data about the maze to a file. The method also throws out exceptions in case
-	 * there are issues with the arguments.
+	 * data about the maze to a file. Filenames ending with ".mza" are written as a
+	 * MazeArchive, any other filename is written as text. The method also throws
+	 * out exceptions in case there are issues with the arguments.
 	 * 
 	 * @param args	the arguments in the input by the user.
 	 */
@@ -172,12 +174,16 @@ public class MazeGenerator extends Maze {
 			}
 			System.out.println();
 
-			String fileData = rows + "," + cols + ":" + maze.startIndex + ":" + maze.lastIndex + ":"
-					+ maze.printOpenness();
 			File mazeFile = new File(fileName);
-			FileWriter writer = new FileWriter(mazeFile);
-			writer.write(fileData);
-			writer.close();
+			if (fileName.endsWith(".mza")) {
+				MazeArchive.write(mazeFile, maze);
+			} else {
+				String fileData = rows + "," + cols + ":" + maze.startIndex + ":" + maze.lastIndex + ":"
+						+ maze.printOpenness();
+				FileWriter writer = new FileWriter(mazeFile);
+				writer.write(fileData);
+				writer.close();
+			}
 		} catch (OutOfMemoryError e) {
 			System.out.println(
 					"The number of rows and columns in the input is too large. Please try again with smaller numbers.");
@@ -1,5 +1,6 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Scanner;
 import java.util.ArrayList;
 import java.util.Queue;
@@ -11,7 +12,8 @@ import java.util.LinkedList;
  * terms of index) of the correct solution, the number of steps taken by the
  * solution, the actual number of steps taken by the program (in case there are
  * wrong turns made) and the number of milliseconds it took to solve the maze.
- * The program also outputs a visual representation of the solution.
+ * The program also outputs a visual representation of the solution. The input
+ * file can be either the text format or the compressed MazeArchive format.
  * 
  * @version 1.0 23/09/2022
  * @author John Deniel Perez
@@ -23,8 +25,9 @@ public class MazeSolverBFS extends Maze {
 	// A counter for the number of steps that the program takes to solve the maze.
 	// It starts at -1 since the starting cell is not counted as a step.
 	private int steps = -1;
-	// A string that contains a list of the openness of each cell in the maze.
-	private String openness;
+	// An array that contains the openness of each cell in the maze arranged by
+	// index.
+	private byte[] openness;
 
 	/**
 	 * The constructor of the class.
@@ -36,6 +39,20 @@ public class MazeSolverBFS extends Maze {
 	 * @param openness   the openness list of each cell in the maze.
 	 */
 	public MazeSolverBFS(int rows, int cols, int startIndex, int lastIndex, String openness) {
+		this(rows, cols, startIndex, lastIndex, parseOpenness(openness));
+	}
+
+	/**
+	 * The constructor of the class for openness that has already been read into an
+	 * array, such as from a MazeArchive.
+	 * 
+	 * @param rows       the number of rows of the maze.
+	 * @param cols       the number of columns of the maze.
+	 * @param startIndex the index of the starting cell.
+	 * @param lastIndex  the index of the last cell.
+	 * @param openness   the openness of each cell in the maze arranged by index.
+	 */
+	public MazeSolverBFS(int rows, int cols, int startIndex, int lastIndex, byte[] openness) {
 		super(rows, cols);
 		this.startIndex = startIndex;
 		this.startRow = getRow(startIndex);
@@ -47,6 +64,20 @@ public class MazeSolverBFS extends Maze {
 		setCells();
 	}
 
+	/**
+	 * Converts the openness list from the text format into an array.
+	 * 
+	 * @param openness the openness list of each cell in the maze.
+	 * @return returns an array with the openness of each cell in the maze.
+	 */
+	private static byte[] parseOpenness(String openness) {
+		byte[] parsed = new byte[openness.length()];
+		for (int i = 0; i < parsed.length; i++) {
+			parsed[i] = (byte) Character.getNumericValue(openness.charAt(i));
+		}
+		return parsed;
+	}
+
 	/**
 	 * Overrides the setCells method of the superclass. It sets the index and
 	 * openness of each cell in the 2D Array based on the input data. It also sets
@@ -59,7 +90,7 @@ public class MazeSolverBFS extends Maze {
 			for (int j = 0; j < cols; j++) {
 				cells[i][j] = new Cell(i, j);
 				cells[i][j].setIndex(cols);
-				cells[i][j].openness = Character.getNumericValue(openness.charAt(i * cols + j));
+				cells[i][j].openness = openness[i * cols + j];
 			}
 		}
 		for (int i = 0; i < rows; i++) {
@@ -183,22 +214,20 @@ public class MazeSolverBFS extends Maze {
 	public static void main(String[] args) {
 		long startTime = System.currentTimeMillis();
 		String fileName = args[0];
-		String[] mazeContent;
-		String[] dimensions;
 		try {
 			File mazeFile = new File(fileName);
-			Scanner reader = new Scanner(mazeFile);
-			mazeContent = reader.nextLine().split(":");
-			reader.close();
-
-			dimensions = mazeContent[0].split(",");
-			int rows = Integer.parseInt(dimensions[0]);
-			int cols = Integer.parseInt(dimensions[1]);
-			int initIndex = Integer.parseInt(mazeContent[1]);
-			int lastIndex = Integer.parseInt(mazeContent[2]);
-			String openness = mazeContent[3];
-
-			MazeSolverBFS maze = new MazeSolverBFS(rows, cols, initIndex, lastIndex, openness);
+			MazeSolverBFS maze;
+			if (MazeArchive.isArchive(mazeFile)) {
+				MazeArchive archive = new MazeArchive(mazeFile);
+				try {
+					maze = new MazeSolverBFS(archive.rows, archive.cols, archive.startIndex, archive.lastIndex,
+							archive.readAll());
+				} finally {
+					archive.close();
+				}
+			} else {
+				maze = readText(mazeFile);
+			}
 			maze.solve();
 			maze.drawGraph();
 			maze.drawPath();
@@ -211,6 +240,32 @@ public class MazeSolverBFS extends Maze {
 			System.out.println("File is not found, please ensure the filename is correct.");
 		} catch (NumberFormatException e) {
 			System.out.println("An error was found within the file contents. Please ensure the data is correct.");
+		} catch (IOException e) {
+			System.out.println("An error occurred while reading the file. Please ensure the file is not corrupted.");
 		}
 	}
+
+	/**
+	 * Reads a maze written in the text format and creates a solver for it.
+	 * 
+	 * @param mazeFile the file to be read.
+	 * @return returns a solver for the maze in the file.
+	 * @throws FileNotFoundException if the file is not found.
+	 */
+	private static MazeSolverBFS readText(File mazeFile) throws FileNotFoundException {
+		String[] mazeContent;
+		String[] dimensions;
+		Scanner reader = new Scanner(mazeFile);
+		mazeContent = reader.nextLine().split(":");
+		reader.close();
+
+		dimensions = mazeContent[0].split(",");
+		int rows = Integer.parseInt(dimensions[0]);
+		int cols = Integer.parseInt(dimensions[1]);
+		int initIndex = Integer.parseInt(mazeContent[1]);
+		int lastIndex = Integer.parseInt(mazeContent[2]);
+		String openness = mazeContent[3];
+
+		return new MazeSolverBFS(rows, cols, initIndex, lastIndex, openness);
+	}
 }